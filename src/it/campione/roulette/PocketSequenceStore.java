@@ -0,0 +1,119 @@
+package it.campione.roulette;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Archivio compatto, fuori dallo heap, della sequenza dei numeri usciti in una serie.
+ *
+ * Ogni numero (0-36) occupa 6 bit in un buffer diretto a sola aggiunta. Ogni
+ * CHECKPOINT_INTERVAL lanci viene salvato il totale progressivo e lo stato della
+ * strategia, cos il profitto/perdita di qualsiasi lancio si ricalcola ripartendo
+ * dal checkpoint precedente, senza tenere in memoria un oggetto per lancio.
+ *
+ * @author D. Campione
+ *
+ */
+public class PocketSequenceStore {
+    public static final int CHECKPOINT_INTERVAL = 4096;
+
+    private static final int BITS_PER_POCKET = 6;
+    private static final int POCKET_MASK = (1 << BITS_PER_POCKET) - 1;
+
+    private final ByteBuffer pockets;
+    private final long capacity;
+    private final double[] checkpointTotals;
+    private final byte[] checkpointStates;
+    private long size;
+
+    /**
+     * Crea un archivio per al massimo <code>capacity</code> lanci.
+     *
+     * @throws IllegalArgumentException se la capacit richiede pi di 2 GB
+     */
+    public PocketSequenceStore(long capacity) {
+        // Un byte in pi: l'ultimo numero pu attraversare il confine tra due byte
+        long bytes = (capacity * BITS_PER_POCKET + 7) / 8 + 1;
+        if (capacity < 0 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacit non supportata: " + capacity);
+        }
+        this.capacity = capacity;
+        this.pockets = ByteBuffer.allocateDirect((int) bytes);
+        int checkpoints = (int) ((capacity + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL);
+        this.checkpointTotals = new double[checkpoints];
+        this.checkpointStates = new byte[checkpoints];
+    }
+
+    /**
+     * Aggiunge un numero in coda alla sequenza.
+     *
+     * Il totale e lo stato della strategia sono quelli precedenti al lancio: vengono
+     * memorizzati solo quando il lancio apre un nuovo intervallo di checkpoint.
+     */
+    public void append(int pocket, double totalBefore, int stateBefore) {
+        if (size == capacity) {
+            throw new IllegalStateException("Archivio pieno: " + capacity + " lanci");
+        }
+        if (pocket < 0 || pocket > POCKET_MASK) {
+            throw new IllegalArgumentException("Numero non valido: " + pocket);
+        }
+        if (size % CHECKPOINT_INTERVAL == 0) {
+            int checkpoint = (int) (size / CHECKPOINT_INTERVAL);
+            checkpointTotals[checkpoint] = totalBefore;
+            checkpointStates[checkpoint] = (byte) stateBefore;
+        }
+        long bitOffset = size * BITS_PER_POCKET;
+        int byteIndex = (int) (bitOffset >>> 3);
+        int shift = (int) (bitOffset & 7);
+        int word = (pockets.get(byteIndex) & 0xFF) | ((pockets.get(byteIndex + 1) & 0xFF) << 8);
+        word |= pocket << shift;
+        pockets.put(byteIndex, (byte) word);
+        pockets.put(byteIndex + 1, (byte) (word >>> 8));
+        size++;
+    }
+
+    /**
+     * Restituisce il numero uscito al lancio <code>index</code> (a partire da 0).
+     */
+    public int getPocket(long index) {
+        checkIndex(index);
+        long bitOffset = index * BITS_PER_POCKET;
+        int byteIndex = (int) (bitOffset >>> 3);
+        int shift = (int) (bitOffset & 7);
+        int word = (pockets.get(byteIndex) & 0xFF) | ((pockets.get(byteIndex + 1) & 0xFF) << 8);
+        return (word >>> shift) & POCKET_MASK;
+    }
+
+    /**
+     * Restituisce il primo lancio coperto dal checkpoint che precede <code>index</code>.
+     */
+    public long checkpointStart(long index) {
+        checkIndex(index);
+        return index - index % CHECKPOINT_INTERVAL;
+    }
+
+    /**
+     * Restituisce il totale progressivo prima del lancio <code>checkpointStart(index)</code>.
+     */
+    public double checkpointTotal(long index) {
+        checkIndex(index);
+        return checkpointTotals[(int) (index / CHECKPOINT_INTERVAL)];
+    }
+
+    /**
+     * Restituisce lo stato della strategia prima del lancio <code>checkpointStart(index)</code>.
+     */
+    public int checkpointState(long index) {
+        checkIndex(index);
+        return checkpointStates[(int) (index / CHECKPOINT_INTERVAL)];
+    }
+
+    public long size() {
+        return size;
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Lancio " + index + " fuori dall'intervallo 0-" + (size - 1));
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package it.campione.roulette;
 
 // Importiamo le librerie necessarie per JavaFX, animazioni, layout e componenti grafici
+import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import javafx.animation.FadeTransition;
 import javafx.animation.KeyFrame;
@@ -12,6 +15,7 @@ import javafx.animation.RotateTransition;
 import javafx.animation.ScaleTransition;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.chart.LineChart;
@@ -22,6 +26,8 @@ import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
 import javafx.scene.control.TextArea;
 import javafx.scene.effect.InnerShadow;
 import javafx.scene.layout.BorderPane;
@@ -30,6 +36,7 @@ import javafx.scene.paint.Color;
 import javafx.scene.web.WebView;
 import javafx.stage.Stage;
 import javafx.util.Duration;
+import javafx.util.StringConverter;
 
 /**
  * La classe principale dell'applicazione che simula strategie di gioco alla roulette.
@@ -70,14 +77,40 @@ public class RouletteGameApp extends Application {
     Roulette roulette;
 
     // Componenti UI principali
-    private WebView outputWebView; // Mostra risultati dei lanci in formato HTML
+    private BorderPane root; // Layout principale (il centro ospita il WebView creato su richiesta)
+    private WebView outputWebView; // Mostra risultati dei lanci in formato HTML (creato al primo utilizzo)
     private TextArea statsTextArea; // Visualizza statistiche finali (massimo guadagno, posizione, totale)
-    private LineChart<Number, Number> profitChart; // Grafico dell'andamento del profitto
+    private LineChart<Number, Number> profitChart; // Grafico dell'andamento del profitto (creato al primo utilizzo)
     private XYChart.Series<Number, Number> series; // Serie dati per il grafico
 
-    // ComboBox per input utente
-    private ComboBox<Integer> numberOfSpinsComboBox; // Numero di lanci per simulazione
+    // Controlli per input utente
+    private Spinner<Integer> numberOfSpinsSpinner; // Numero di lanci per simulazione
     private ComboBox<Integer> sufficientCapitalComboBox; // Capitale minimo per vincita
+    private CheckBox compactStorageCheckBox; // Archivia la serie fuori dallo heap (PocketSequenceStore)
+    private Spinner<Integer> spinPageSpinner; // Primo lancio mostrato nel WebView in modalit compatta
+    private Button startButton; // Disabilitato mentre una simulazione compatta  in corso
+    private Button cancelButton; // Annulla la simulazione compatta in corso
+    private Task<SimulationData> runningSimulation; // Simulazione compatta in corso (null se nessuna)
+
+    // Limiti del numero di lanci per serie
+    private static final int MIN_SPINS = 1;
+    private static final int MAX_SPINS = 1_000_000_000;
+    private static final int DEFAULT_SPINS = 100;
+    // Oltre questo limite (il vecchio massimo della ComboBox) righe HTML e punti del grafico bloccano l'interfaccia
+    private static final int MAX_DETAILED_SPINS = 5_500;
+
+    // Avvio rapido: con -Droulette.fastStart=true le animazioni di ingresso vengono saltate
+    private static final boolean FAST_START = Boolean.getBoolean("roulette.fastStart");
+    // Con -Droulette.measureStartup=true viene stampato il tempo di comparsa del primo frame
+    private static final boolean MEASURE_STARTUP = Boolean.getBoolean("roulette.measureStartup");
+    // Tempo massimo (ms dal caricamento della classe) entro cui deve comparire il primo frame
+    private static final long FIRST_FRAME_TARGET_MS = Long.getLong("roulette.firstFrameTargetMs", 1500L);
+    // Istante di caricamento della classe, cio dell'avvio di main(): riferimento per la misura del primo frame
+    private static final long LAUNCH_NANOS = System.nanoTime();
+
+    // Modalit compatta: punti massimi nel grafico e righe per pagina nel WebView
+    private static final int MAX_CHART_POINTS = 2000;
+    private static final int SPIN_PAGE_SIZE = 500;
 
     // Variabili per gestire le strategie Castello
     private ComboBox<String> strategyComboBox; // Casella di selezione strategie
@@ -97,12 +130,18 @@ public class RouletteGameApp extends Application {
     private static final int[] RED_NUMBERS = { 1, 3, 5, 7, 9, 12, 14, 16, 18, 19, 21, 23, 25, 27, 30, 32, 34, 36 };
     private static final int[] BLACK_NUMBERS = { 2, 4, 6, 8, 10, 11, 13, 15, 17, 20, 22, 24, 26, 28, 29, 31, 33, 35 };
 
+    // Stati della strategia (salvati nei checkpoint del PocketSequenceStore)
+    private static final int STATE_CASTELLO = 0;
+    private static final int STATE_COLORE_OPPOSTO_NERO = 1; // Uscito un rosso: si punta sul nero
+    private static final int STATE_COLORE_OPPOSTO_ROSSO = 2; // Uscito un nero: si punta sul rosso
+
     // Variabili di stato
     private int lastLossNumber = -1; // Ultimo numero uscito in caso di perdita
     private boolean isBackupStrategyActive = false; // Indica se  attiva la strategia di backup
 
     // Lista per memorizzare le simulazioni storiche
     private List<SimulationData> simulationHistory = new ArrayList<>();
+    private SimulationData compactSimulation; // Ultima simulazione compatta, sfogliabile a pagine
 
     /**
      * Metodo principale di inizializzazione dell'applicazione JavaFX.
@@ -112,38 +151,57 @@ public class RouletteGameApp extends Application {
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Roulette Game - Castello Strategy");
         roulette = new Roulette();
-        outputWebView = new WebView();
         statsTextArea = new TextArea();
         statsTextArea.setEditable(false);
         statsTextArea.setWrapText(true);
-        applyStartupAnimations(statsTextArea);
-
-        numberOfSpinsComboBox = new ComboBox<>();
-        for (int i = 1; i <= 5500; i++) {
-            numberOfSpinsComboBox.getItems().add(i);
+        if (!FAST_START) {
+            applyStartupAnimations(statsTextArea);
         }
-        numberOfSpinsComboBox.getSelectionModel().select(99); // Default value
+
+        // Spinner numerico: nessuna lista di elementi da precaricare e lanci fino a 10^9
+        numberOfSpinsSpinner = new Spinner<>(MIN_SPINS, MAX_SPINS, DEFAULT_SPINS);
+        configureIntegerSpinner(numberOfSpinsSpinner);
 
         sufficientCapitalComboBox = new ComboBox<>();
         sufficientCapitalComboBox.getItems().addAll(0, 25, 50, 60, 75, 90, 100, 150, 200);
         sufficientCapitalComboBox.getSelectionModel().selectFirst(); // Default value
 
-        Button startButton = new Button("Avvia Simulazione");
+        // Modalit compatta: i lanci vengono archiviati fuori dallo heap e mostrati a pagine
+        compactStorageCheckBox = new CheckBox("Archivio compatto (serie lunghe)");
+        spinPageSpinner = new Spinner<>(1, 1, 1, SPIN_PAGE_SIZE);
+        configureIntegerSpinner(spinPageSpinner);
+        spinPageSpinner.setDisable(true);
+        spinPageSpinner.valueProperty().addListener((obs, oldValue, newValue) -> {
+            if (compactSimulation != null && newValue != null) {
+                renderSpinPage(compactSimulation, newValue - 1);
+            }
+        });
+
+        startButton = new Button("Avvia Simulazione");
         startButton.getStyleClass().add("button");
         startButton.setOnAction(e -> startSimulation());
         applyButtonEffects(startButton);
 
+        cancelButton = new Button("Annulla Simulazione");
+        cancelButton.getStyleClass().add("button");
+        cancelButton.setDisable(true);
+        cancelButton.setOnAction(e -> {
+            if (runningSimulation != null) {
+                runningSimulation.cancel();
+            }
+        });
+
         // Crea la ComboBox per selezionare la strategia Castello
         strategyComboBox = new ComboBox<>();
         strategyComboBox.getItems().addAll(STRATEGY_CASTELLO_01, STRATEGY_CASTELLO_02);
         strategyComboBox.getSelectionModel().selectFirst(); // Seleziona Metodo 01 di default
         strategyComboBox.setPromptText("Seleziona Strategia");
 
-        VBox controlsBox = new VBox(10, new Label("Numero di lanci nella serie:"), numberOfSpinsComboBox,
+        VBox controlsBox = new VBox(10, new Label("Numero di lanci nella serie:"), numberOfSpinsSpinner,
                 new Label("Capitale minimo di vittoria:"), sufficientCapitalComboBox, new Label("Strategia Castello:"),
-                strategyComboBox, startButton);
+                strategyComboBox, compactStorageCheckBox, startButton, cancelButton, new Label("Visualizza dal lancio:"),
+                spinPageSpinner);
         controlsBox.setPadding(new Insets(10));
-        applyComboBoxAnimation(numberOfSpinsComboBox);
         applyComboBoxAnimation(sufficientCapitalComboBox);
 
         // Crea la casella di controllo per mostrare/nascondere il grafico
@@ -158,19 +216,8 @@ public class RouletteGameApp extends Application {
         // Aggiungi la casella di controllo in prima posizione
         controlsBox.getChildren().add(0, showChartCheckBox); // Inserita in posizione 0
 
-        // Chart Setup
-        final NumberAxis xAxis = new NumberAxis();
-        final NumberAxis yAxis = new NumberAxis();
-        xAxis.setLabel("Lancio");
-        yAxis.setLabel("Profitto/Perdita ()");
-
-        profitChart = new LineChart<>(xAxis, yAxis);
-        profitChart.setTitle("Andamento Profitto Totale");
-        series = new XYChart.Series<>();
-        series.setName("Profitto/Perdita");
-
-        // Creazione del contenitore del grafico (ora come variabile di classe)
-        chartBox = new VBox(profitChart);
+        // Contenitore del grafico: il LineChart viene creato alla prima simulazione
+        chartBox = new VBox();
         chartBox.setPadding(new Insets(10));
         chartBox.setVisible(true); // Visibile all'avvio
         chartBox.setManaged(true); // Gestito dal layout all'avvio
@@ -181,8 +228,9 @@ public class RouletteGameApp extends Application {
 
         controlsBox.getChildren().add(historyButton);
 
-        BorderPane root = new BorderPane();
-        root.setCenter(outputWebView);
+        // Il WebView  costoso da inizializzare: al suo posto un'etichetta fino alla prima simulazione
+        root = new BorderPane();
+        root.setCenter(new Label("Premi \"Avvia Simulazione\" per visualizzare i lanci."));
         root.setRight(controlsBox);
         root.setBottom(statsTextArea);
         root.setLeft(chartBox);
@@ -195,9 +243,149 @@ public class RouletteGameApp extends Application {
             event.consume();
             applyExitAnimations(primaryStage);
         });
+        if (MEASURE_STARTUP) {
+            measureFirstFrame(scene);
+        }
         primaryStage.show();
     }
 
+    /**
+     * Misura il tempo trascorso dall'avvio di main() (caricamento di questa classe)
+     * fino al primo frame della scena, cio al termine del primo pulse con CSS e
+     * layout completati. L'avvio della JVM precedente a main() non  compreso.
+     * 
+     * Il valore viene stampato sulla console e, se supera FIRST_FRAME_TARGET_MS,
+     * segnalato come avviso.
+     */
+    private void measureFirstFrame(Scene scene) {
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                long elapsed = (System.nanoTime() - LAUNCH_NANOS) / 1_000_000;
+                if (elapsed > FIRST_FRAME_TARGET_MS) {
+                    System.err.println("Primo frame in " + elapsed + " ms (obiettivo: " + FIRST_FRAME_TARGET_MS
+                            + " ms)");
+                } else {
+                    System.out.println("Primo frame in " + elapsed + " ms");
+                }
+            }
+        };
+        scene.addPostLayoutPulseListener(listener);
+    }
+
+    /**
+     * Restituisce il WebView dei risultati, creandolo al primo utilizzo.
+     */
+    private WebView getOutputWebView() {
+        if (outputWebView == null) {
+            outputWebView = new WebView();
+            root.setCenter(outputWebView);
+        }
+        return outputWebView;
+    }
+
+    /**
+     * Restituisce il grafico del profitto, creandolo al primo utilizzo.
+     */
+    private LineChart<Number, Number> getProfitChart() {
+        if (profitChart == null) {
+            final NumberAxis xAxis = new NumberAxis();
+            final NumberAxis yAxis = new NumberAxis();
+            xAxis.setLabel("Lancio");
+            yAxis.setLabel("Profitto/Perdita ()");
+
+            profitChart = new LineChart<>(xAxis, yAxis);
+            profitChart.setTitle("Andamento Profitto Totale");
+            chartBox.getChildren().add(profitChart);
+        }
+        return profitChart;
+    }
+
+    /**
+     * Rende modificabile uno Spinner di interi con un'interpretazione del testo pi
+     * tollerante di quella predefinita.
+     * 
+     * Lo Spinner applica il testo con Invio e alla perdita del focus tramite il
+     * convertitore: un testo non valido non solleva eccezioni, viene segnalato e
+     * lasciato nell'editor (il valore resta l'ultimo accettato), cos l'avvio della
+     * simulazione pu ancora rifiutarlo.
+     */
+    private void configureIntegerSpinner(Spinner<Integer> spinner) {
+        SpinnerValueFactory<Integer> valueFactory = spinner.getValueFactory();
+        valueFactory.setConverter(new StringConverter<Integer>() {
+            @Override
+            public String toString(Integer value) {
+                return value == null ? "" : value.toString();
+            }
+
+            @Override
+            public Integer fromString(String text) {
+                Long requested = parseSpinnerText(text);
+                if (requested == null) {
+                    reportInvalidSpinnerText(text);
+                    return valueFactory.getValue();
+                }
+                return clampToSpinner(spinner, requested);
+            }
+        });
+        spinner.setEditable(true);
+    }
+
+    /**
+     * Applica il testo digitato nello Spinner, limitandolo all'intervallo consentito.
+     * 
+     * @return false se il testo non  un numero valido (il testo resta nell'editor)
+     */
+    private boolean commitSpinnerText(Spinner<Integer> spinner) {
+        SpinnerValueFactory<Integer> valueFactory = spinner.getValueFactory();
+        String text = spinner.getEditor().getText();
+        Long requested = parseSpinnerText(text);
+        if (requested == null) {
+            reportInvalidSpinnerText(text);
+            return false;
+        }
+        valueFactory.setValue(clampToSpinner(spinner, requested));
+        spinner.getEditor().setText(String.valueOf(valueFactory.getValue()));
+        return true;
+    }
+
+    /**
+     * Interpreta il testo di uno Spinner di interi.
+     * 
+     * Sono accettate solo cifre, eventualmente raggruppate a tre a tre con il
+     * separatore delle migliaia della lingua corrente (es. 1.000.000): "1.5" o
+     * "1,000" con separatore diverso non sono validi.
+     * 
+     * @return il valore letto, oppure null se il testo non  valido
+     */
+    private static Long parseSpinnerText(String text) {
+        String trimmed = text == null ? "" : text.trim();
+        String separator = Pattern.quote(String.valueOf(DecimalFormatSymbols.getInstance().getGroupingSeparator()));
+        if (!trimmed.matches("\\d+") && !trimmed.matches("\\d{1,3}(" + separator + "\\d{3})+")) {
+            return null;
+        }
+        String digits = trimmed.replaceAll("\\D", "");
+        // Oltre 18 cifre il valore supera comunque qualsiasi massimo dello Spinner
+        return digits.length() > 18 ? Long.MAX_VALUE : Long.parseLong(digits);
+    }
+
+    /**
+     * Limita un valore all'intervallo dello Spinner.
+     */
+    private static int clampToSpinner(Spinner<Integer> spinner, long value) {
+        SpinnerValueFactory.IntegerSpinnerValueFactory valueFactory = (SpinnerValueFactory.IntegerSpinnerValueFactory) spinner
+                .getValueFactory();
+        return (int) Math.max(valueFactory.getMin(), Math.min(valueFactory.getMax(), value));
+    }
+
+    /**
+     * Segnala nel pannello delle statistiche un valore non valido digitato in uno Spinner.
+     */
+    private void reportInvalidSpinnerText(String text) {
+        statsTextArea.setText("Valore non valido: \"" + text + "\". Inserire un numero intero.");
+    }
+
     /**
      * Applica animazioni di ingresso al TextArea delle statistiche.
      * Combina dissolvenza, scala e rotazione per un effetto teatrale.
@@ -255,16 +443,36 @@ public class RouletteGameApp extends Application {
      * Calcola risultati, aggiorna l'interfaccia e gestisce le strategie.
      */
     private void startSimulation() {
+        if (!commitSpinnerText(numberOfSpinsSpinner)) {
+            return; // La segnalazione del valore non valido resta nel pannello delle statistiche
+        }
         addNeonEffect(statsTextArea);
-        outputWebView.getEngine().loadContent("");
+        getOutputWebView().getEngine().loadContent("");
         statsTextArea.clear();
-        profitChart.getData().clear();
+        getProfitChart().getData().clear();
         series = new XYChart.Series<>();
         profitChart.getData().add(series);
         series.setName("Profitto/Perdita");
 
-        int numberOfSpins = numberOfSpinsComboBox.getValue();
+        // Rilascia l'archivio della simulazione compatta precedente: lo storico conserva solo i punti campionati
+        if (compactSimulation != null) {
+            compactSimulation.store = null;
+            compactSimulation = null;
+        }
+        spinPageSpinner.setDisable(true);
+
+        int numberOfSpins = numberOfSpinsSpinner.getValue();
         int sufficientCapital = sufficientCapitalComboBox.getValue();
+        // Ottieni la strategia selezionata
+        String selectedStrategy = strategyComboBox.getValue();
+
+        // Oltre MAX_DETAILED_SPINS la serie dettagliata esaurirebbe la memoria: si passa all'archivio compatto
+        boolean automaticCompactStorage = !compactStorageCheckBox.isSelected() && numberOfSpins > MAX_DETAILED_SPINS;
+        if (compactStorageCheckBox.isSelected() || automaticCompactStorage) {
+            startCompactSimulation(numberOfSpins, sufficientCapital, selectedStrategy, automaticCompactStorage);
+            return;
+        }
+
         double totalProfitLoss = 0;
         double maxProfit = Double.MIN_VALUE;
         StringBuilder output = new StringBuilder();
@@ -276,43 +484,15 @@ public class RouletteGameApp extends Application {
         output.append(
                 "<html><head><meta charset='UTF-8'></head><body style='font-family: Courier New; font-size: 12px;'>");
 
-        String currentStrategy = "Castello";
-        String lastColor = "";
-
-        // Ottieni la strategia selezionata
-        String selectedStrategy = strategyComboBox.getValue();
+        StrategyState strategyState = new StrategyState(selectedStrategy, 0, STATE_CASTELLO);
 
         for (int i = 0; i < numberOfSpins; i++) {
             int number = roulette.spin();
-            double result = 0;
-            String strategy = "";
-
-            switch (currentStrategy) {
-            case "Castello":
-                // Usa la strategia selezionata
-                if (STRATEGY_CASTELLO_01.equals(selectedStrategy)) {
-                    result = calculateBetResultMethod1(number);
-                } else {
-                    result = calculateBetResultMethod2(number);
-                }
-                strategy = "(" + selectedStrategy + ")";
-                if (result < 0) {
-                    currentStrategy = "Colore opposto";
-                    lastColor = getColor(number);
-                }
-                break;
-
-            case "Colore opposto":
-                String targetColor = lastColor.equals("Rosso") ? "Nero" : "Rosso";
-                boolean isWin = getColor(number).equals(targetColor);
-                result = isWin ? 8 : -8; // Vittoria o perdita fissa
-                strategy = "(Colore opposto)";
-                currentStrategy = result < 0 ? "Colore opposto" : "Castello"; // Torna a Castello in caso di vittoria
-                break;
-            }
+            String strategy = strategyState.label();
+            double result = strategyState.play(number);
 
             // Aggiorna i totali e i dati statistici
-            totalProfitLoss += result;
+            totalProfitLoss = strategyState.total;
             profitList.add(totalProfitLoss);
             series.getData().add(new XYChart.Data<>(i + 1, totalProfitLoss));
 
@@ -322,27 +502,14 @@ public class RouletteGameApp extends Application {
             }
 
             // Costruisce la riga di output HTML
-            String color = getColor(number);
-            String parity = getParity(number);
-            String range = getRange(number);
-            String situation = getSituation(result);
-            String profitLoss = result >= 0 ? "Guadagno: " + result + "" : "Perdita: " + Math.abs(result) + "";
-            String line = getSymbol(result) + " " + number + " | Colore: " + color + " | Parit: " + parity
-                    + " | Range: " + range + " | Situazione: " + situation + " | " + profitLoss + " | Totale: "
-                    + totalProfitLoss + " " + strategy + "<br>";
+            String line = buildSpinLine(number, result, totalProfitLoss, strategy);
 
             if (totalProfitLoss == maxProfit) {
                 maxProfitLine = line;
             }
 
             // Colora la riga in base al risultato
-            if (totalProfitLoss < 0) {
-                output.append("<span style='color:red;'>").append(line).append("</span>");
-            } else if (sufficientCapital > 0 && totalProfitLoss >= sufficientCapital) {
-                output.append("<span style='color:blue;'>").append(line).append("</span>");
-            } else {
-                output.append("<span style='color:black;'>").append(line).append("</span>");
-            }
+            output.append(colorSpinLine(line, totalProfitLoss, sufficientCapital));
         }
 
         // Chiude il tag HTML
@@ -359,14 +526,206 @@ public class RouletteGameApp extends Application {
         String finalOutput = output.toString().replace(maxProfitLine, highlightedLine);
 
         // Aggiorna i componenti UI
-        outputWebView.getEngine().loadContent(finalOutput);
+        getOutputWebView().getEngine().loadContent(finalOutput);
         statsTextArea.setText(stats.toString());
         removeNeonEffect(statsTextArea); // Rimuove l'effetto neon
 
         // Salva la simulazione nello storico
-        simulationHistory.add(
-                new SimulationData(new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date()),
-                        profitList, numberOfSpins, totalProfitLoss));
+        simulationHistory.add(new SimulationData(currentTimestamp(), profitList, numberOfSpins, totalProfitLoss));
+    }
+
+    /**
+     * Esegue una simulazione compatta in un thread in background.
+     * 
+     * I lanci vengono archiviati nel PocketSequenceStore e nel grafico finiscono al
+     * massimo MAX_CHART_POINTS punti campionati; al termine l'interfaccia mostra la
+     * pagina di lanci centrata sul massimo guadagno. La simulazione pu essere
+     * interrotta con il pulsante di annullamento.
+     * 
+     * automaticCompactStorage indica che l'archivio compatto  stato scelto perch la
+     * serie supera MAX_DETAILED_SPINS, non dalla casella di controllo.
+     */
+    private void startCompactSimulation(int numberOfSpins, int sufficientCapital, String selectedStrategy,
+            boolean automaticCompactStorage) {
+        Task<SimulationData> task = new Task<SimulationData>() {
+            @Override
+            protected SimulationData call() {
+                PocketSequenceStore store = new PocketSequenceStore(numberOfSpins);
+                // Arrotonda per eccesso: al massimo MAX_CHART_POINTS punti, ultimo lancio compreso
+                int chartStride = (numberOfSpins + MAX_CHART_POINTS - 1) / MAX_CHART_POINTS;
+                int samples = numberOfSpins / chartStride + 1;
+                int[] sampleSpins = new int[samples];
+                double[] sampleTotals = new double[samples];
+                int sampleCount = 0;
+                double maxProfit = Double.MIN_VALUE;
+                int maxProfitIndex = -1;
+
+                StrategyState strategyState = new StrategyState(selectedStrategy, 0, STATE_CASTELLO);
+                for (int i = 0; i < numberOfSpins; i++) {
+                    int number = roulette.spin();
+                    store.append(number, strategyState.total, strategyState.state);
+                    strategyState.play(number);
+
+                    if ((i + 1) % chartStride == 0 || i == numberOfSpins - 1) {
+                        sampleSpins[sampleCount] = i + 1;
+                        sampleTotals[sampleCount] = strategyState.total;
+                        sampleCount++;
+                    }
+                    if (strategyState.total > maxProfit) {
+                        maxProfit = strategyState.total;
+                        maxProfitIndex = i;
+                    }
+                    if ((i & 0xFFFFF) == 0) {
+                        if (isCancelled()) {
+                            return null;
+                        }
+                        updateMessage("Simulazione in corso: " + (i / (numberOfSpins / 100 + 1)) + "%");
+                    }
+                }
+                return new SimulationData(currentTimestamp(), store, selectedStrategy, numberOfSpins,
+                        strategyState.total, maxProfit, maxProfitIndex, sufficientCapital,
+                        Arrays.copyOf(sampleSpins, sampleCount), Arrays.copyOf(sampleTotals, sampleCount));
+            }
+        };
+        task.messageProperty().addListener((obs, oldMessage, newMessage) -> {
+            if (task.isRunning()) {
+                statsTextArea.setText(newMessage);
+            }
+        });
+
+        task.setOnSucceeded(e -> {
+            SimulationData data = task.getValue();
+            for (int i = 0; i < data.sampleSpins.length; i++) {
+                series.getData().add(new XYChart.Data<>(data.sampleSpins[i], data.sampleTotals[i]));
+            }
+
+            // Costruisce le statistiche finali
+            StringBuilder stats = new StringBuilder();
+            if (automaticCompactStorage) {
+                stats.append("Serie oltre ").append(MAX_DETAILED_SPINS)
+                        .append(" lanci: usato automaticamente l'archivio compatto.\n");
+            }
+            stats.append("Massimo guadagno raggiunto: ").append(data.maxProfit).append("\n");
+            stats.append("Posizione del massimo guadagno: ").append(data.maxProfitIndex + 1).append("\n");
+            stats.append("Profitto/Perdita totale: ").append(data.totalProfit).append("\n");
+
+            // Mostra la pagina centrata sul massimo guadagno
+            int firstSpin = Math.max(1, data.maxProfitIndex + 1 - SPIN_PAGE_SIZE / 2);
+            SpinnerValueFactory.IntegerSpinnerValueFactory pageFactory = (SpinnerValueFactory.IntegerSpinnerValueFactory) spinPageSpinner
+                    .getValueFactory();
+            pageFactory.setMax(data.spins);
+            pageFactory.setValue(firstSpin); // compactSimulation  ancora null: nessun rendering dal listener
+            spinPageSpinner.setDisable(false);
+            compactSimulation = data;
+            renderSpinPage(data, firstSpin - 1);
+
+            statsTextArea.setText(stats.toString());
+            removeNeonEffect(statsTextArea); // Rimuove l'effetto neon
+            setCompactSimulationRunning(null);
+            simulationHistory.add(data);
+        });
+        task.setOnFailed(e -> {
+            if (task.getException() instanceof OutOfMemoryError) {
+                statsTextArea.setText("Memoria insufficiente per archiviare " + numberOfSpins
+                        + " lanci (aumentare -XX:MaxDirectMemorySize).");
+            } else {
+                statsTextArea.setText("Simulazione interrotta: " + task.getException());
+            }
+            removeNeonEffect(statsTextArea);
+            setCompactSimulationRunning(null);
+        });
+        task.setOnCancelled(e -> {
+            statsTextArea.setText("Simulazione annullata.");
+            removeNeonEffect(statsTextArea);
+            setCompactSimulationRunning(null);
+        });
+
+        setCompactSimulationRunning(task);
+        Thread thread = new Thread(task, "roulette-simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Registra la simulazione compatta in corso (null al termine) e abilita di
+     * conseguenza i pulsanti di avvio e di annullamento.
+     */
+    private void setCompactSimulationRunning(Task<SimulationData> task) {
+        runningSimulation = task;
+        startButton.setDisable(task != null);
+        cancelButton.setDisable(task == null);
+    }
+
+    /**
+     * Restituisce data e ora correnti per identificare una simulazione nello storico.
+     */
+    private static String currentTimestamp() {
+        return new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date());
+    }
+
+    /**
+     * Costruisce la riga di output HTML di un lancio.
+     */
+    private String buildSpinLine(int number, double result, double totalProfitLoss, String strategy) {
+        String color = getColor(number);
+        String parity = getParity(number);
+        String range = getRange(number);
+        String situation = getSituation(result);
+        String profitLoss = result >= 0 ? "Guadagno: " + result + "" : "Perdita: " + Math.abs(result) + "";
+        return getSymbol(result) + " " + number + " | Colore: " + color + " | Parit: " + parity + " | Range: "
+                + range + " | Situazione: " + situation + " | " + profitLoss + " | Totale: " + totalProfitLoss + " "
+                + strategy + "<br>";
+    }
+
+    /**
+     * Colora la riga in base al totale: rosso in perdita, blu oltre il capitale
+     * minimo di vittoria, nero altrimenti.
+     */
+    private String colorSpinLine(String line, double totalProfitLoss, int sufficientCapital) {
+        if (totalProfitLoss < 0) {
+            return "<span style='color:red;'>" + line + "</span>";
+        } else if (sufficientCapital > 0 && totalProfitLoss >= sufficientCapital) {
+            return "<span style='color:blue;'>" + line + "</span>";
+        } else {
+            return "<span style='color:black;'>" + line + "</span>";
+        }
+    }
+
+    /**
+     * Mostra nel WebView SPIN_PAGE_SIZE lanci di una simulazione compatta a partire
+     * da <code>firstIndex</code> (a partire da 0).
+     * 
+     * Le righe vengono ricostruite dall'archivio ripartendo dal checkpoint precedente.
+     */
+    private void renderSpinPage(SimulationData data, long firstIndex) {
+        PocketSequenceStore store = data.store;
+        long lastIndex = Math.min(store.size(), firstIndex + SPIN_PAGE_SIZE) - 1;
+        StrategyState strategyState = new StrategyState(data.strategy, store.checkpointTotal(firstIndex),
+                store.checkpointState(firstIndex));
+        for (long i = store.checkpointStart(firstIndex); i < firstIndex; i++) {
+            strategyState.play(store.getPocket(i));
+        }
+
+        StringBuilder output = new StringBuilder();
+        output.append(
+                "<html><head><meta charset='UTF-8'></head><body style='font-family: Courier New; font-size: 12px;'>");
+        output.append("<b>Lanci ").append(firstIndex + 1).append(" - ").append(lastIndex + 1).append(" di ")
+                .append(data.spins).append("</b><br>");
+        for (long i = firstIndex; i <= lastIndex; i++) {
+            int number = store.getPocket(i);
+            String strategy = strategyState.label();
+            double result = strategyState.play(number);
+            String line = buildSpinLine(number, result, strategyState.total, strategy);
+            if (i == data.maxProfitIndex) {
+                // Evidenzia la riga del massimo guadagno
+                output.append("<span style='background-color: #F0E68C; font-weight: bold; color: black;'>")
+                        .append(line).append("</span>");
+            } else {
+                output.append(colorSpinLine(line, strategyState.total, data.sufficientCapital));
+            }
+        }
+        output.append("</body></html>");
+        getOutputWebView().getEngine().loadContent(output.toString());
     }
 
     /**
@@ -590,7 +949,8 @@ public class RouletteGameApp extends Application {
         stage.setTitle("Storico Grafici");
         ListView<String> list = new ListView<>();
         for (SimulationData data : simulationHistory) {
-            list.getItems().add(data.timestamp + " | Totale: " + data.totalProfit + " | Lanci: " + data.spins);
+            list.getItems().add(data.timestamp + " | Totale: " + data.totalProfit + " | Lanci: " + data.spins
+                    + (data.sampleSpins != null ? " | Archivio compatto" : ""));
         }
         list.setOnMouseClicked(event -> {
             int index = list.getSelectionModel().getSelectedIndex();
@@ -619,8 +979,15 @@ public class RouletteGameApp extends Application {
         chart.setTitle("Andamento Profitto - " + data.timestamp);
         XYChart.Series<Number, Number> series = new XYChart.Series<>();
         series.setName("Profitto/Perdita");
-        for (int i = 0; i < data.profits.size(); i++) {
-            series.getData().add(new XYChart.Data<>(i + 1, data.profits.get(i)));
+        if (data.sampleSpins != null) {
+            // Serie compatta: solo i punti campionati durante la simulazione
+            for (int i = 0; i < data.sampleSpins.length; i++) {
+                series.getData().add(new XYChart.Data<>(data.sampleSpins[i], data.sampleTotals[i]));
+            }
+        } else {
+            for (int i = 0; i < data.profits.size(); i++) {
+                series.getData().add(new XYChart.Data<>(i + 1, data.profits.get(i)));
+            }
         }
         chart.getData().add(series);
         Scene scene = new Scene(chart, 800, 600);
@@ -628,14 +995,77 @@ public class RouletteGameApp extends Application {
         graphStage.show();
     }
 
+    /**
+     * Stato della strategia durante una serie: totale progressivo e metodo attivo.
+     * 
+     * Lo stato  codificato con le costanti STATE_* per poterlo salvare nei
+     * checkpoint del PocketSequenceStore e riprendere il calcolo da l.
+     */
+    private class StrategyState {
+        final String selectedStrategy;
+        double total;
+        int state;
+
+        StrategyState(String selectedStrategy, double total, int state) {
+            this.selectedStrategy = selectedStrategy;
+            this.total = total;
+            this.state = state;
+        }
+
+        /**
+         * Etichetta della strategia usata al prossimo lancio.
+         */
+        String label() {
+            return state == STATE_CASTELLO ? "(" + selectedStrategy + ")" : "(Colore opposto)";
+        }
+
+        /**
+         * Gioca un lancio: aggiorna totale e stato e restituisce il risultato.
+         */
+        double play(int number) {
+            double result;
+            if (state == STATE_CASTELLO) {
+                // Usa la strategia selezionata
+                if (STRATEGY_CASTELLO_01.equals(selectedStrategy)) {
+                    result = calculateBetResultMethod1(number);
+                } else {
+                    result = calculateBetResultMethod2(number);
+                }
+                if (result < 0) {
+                    state = getColor(number).equals("Rosso") ? STATE_COLORE_OPPOSTO_NERO : STATE_COLORE_OPPOSTO_ROSSO;
+                }
+            } else {
+                String targetColor = state == STATE_COLORE_OPPOSTO_NERO ? "Nero" : "Rosso";
+                boolean isWin = getColor(number).equals(targetColor);
+                result = isWin ? 8 : -8; // Vittoria o perdita fissa
+                if (result > 0) {
+                    state = STATE_CASTELLO; // Torna a Castello in caso di vittoria
+                }
+            }
+            total += result;
+            return result;
+        }
+    }
+
     /**
      * Classe ausiliaria per memorizzare i dati delle simulazioni.
+     * 
+     * Le simulazioni compatte conservano al posto della lista dei profitti solo i
+     * punti campionati per il grafico; l'archivio dei lanci resta disponibile
+     * finch non viene avviata la simulazione successiva.
      */
     private static class SimulationData {
         String timestamp;
         List<Double> profits;
+        PocketSequenceStore store;
+        String strategy;
         int spins;
         double totalProfit;
+        double maxProfit;
+        int maxProfitIndex;
+        int sufficientCapital;
+        int[] sampleSpins;
+        double[] sampleTotals;
 
         public SimulationData(String timestamp, List<Double> profits, int spins, double totalProfit) {
             this.timestamp = timestamp;
@@ -643,6 +1073,21 @@ public class RouletteGameApp extends Application {
             this.spins = spins;
             this.totalProfit = totalProfit;
         }
+
+        public SimulationData(String timestamp, PocketSequenceStore store, String strategy, int spins,
+                double totalProfit, double maxProfit, int maxProfitIndex, int sufficientCapital, int[] sampleSpins,
+                double[] sampleTotals) {
+            this.timestamp = timestamp;
+            this.store = store;
+            this.strategy = strategy;
+            this.spins = spins;
+            this.totalProfit = totalProfit;
+            this.maxProfit = maxProfit;
+            this.maxProfitIndex = maxProfitIndex;
+            this.sufficientCapital = sufficientCapital;
+            this.sampleSpins = sampleSpins;
+            this.sampleTotals = sampleTotals;
+        }
     }
 
     /**